@@ -0,0 +1,94 @@
+package com.example.voskhinditranscriber;
+
+import java.io.IOException;
+
+/**
+ * Groups timed words into caption cues and hands each finished cue to a
+ * {@link SubtitleWriter}. Only the cue being built is held in memory.
+ *
+ * A cue is closed when the next word would no longer fit on two caption
+ * lines, would make it last too long, or when the speaker pauses long enough
+ * between words. Each cue is written as one or two balanced lines.
+ */
+class CaptionCueBuilder {
+
+    static final int MAX_LINE_CHARS = 42;
+    private static final double MAX_CUE_SECONDS = 6.0;
+    private static final double PAUSE_SECONDS = 0.7;
+
+    private final SubtitleWriter writer;
+    private final StringBuilder text = new StringBuilder();
+    private double cueStart = -1;
+    private double cueEnd = -1;
+
+    CaptionCueBuilder(SubtitleWriter writer) {
+        this.writer = writer;
+    }
+
+    void addWord(String word, double start, double end) throws IOException {
+        if (word.isEmpty()) {
+            return;
+        }
+        if (text.length() > 0) {
+            boolean tooLong = lineBreakIndex(text + " " + word) < 0;
+            boolean tooSlow = end - cueStart > MAX_CUE_SECONDS;
+            boolean paused = start - cueEnd >= PAUSE_SECONDS;
+            if (tooLong || tooSlow || paused) {
+                flush();
+            }
+        }
+
+        if (text.length() == 0) {
+            cueStart = start;
+        } else {
+            text.append(' ');
+        }
+        text.append(word);
+        cueEnd = end;
+    }
+
+    /** Writes out the cue in progress, if any. */
+    void flush() throws IOException {
+        if (text.length() == 0) {
+            return;
+        }
+        writer.writeCue(cueStart, cueEnd, wrap(text.toString()));
+        text.setLength(0);
+        cueStart = -1;
+        cueEnd = -1;
+    }
+
+    /**
+     * Splits a cue into two lines at the space closest to the middle, or keeps
+     * it on one line if it fits. A single word longer than a line is left as is.
+     */
+    static String wrap(String cueText) {
+        int index = lineBreakIndex(cueText);
+        if (index <= 0) {
+            return cueText;
+        }
+        return cueText.substring(0, index) + "\n" + cueText.substring(index + 1);
+    }
+
+    /**
+     * Where to break the text into two lines of at most {@link #MAX_LINE_CHARS}:
+     * 0 if it fits on one line, the index of the space to break at, or -1 if it
+     * does not fit on two lines.
+     */
+    private static int lineBreakIndex(String cueText) {
+        int length = cueText.length();
+        if (length <= MAX_LINE_CHARS) {
+            return 0;
+        }
+        int best = -1;
+        for (int i = 0; i < length; i++) {
+            if (cueText.charAt(i) != ' ' || i > MAX_LINE_CHARS || length - i - 1 > MAX_LINE_CHARS) {
+                continue;
+            }
+            if (best < 0 || Math.abs(length / 2 - i) < Math.abs(length / 2 - best)) {
+                best = i;
+            }
+        }
+        return best;
+    }
+}
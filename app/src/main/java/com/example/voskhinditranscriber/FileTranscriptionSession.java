@@ -0,0 +1,117 @@
+package com.example.voskhinditranscriber;
+
+import android.net.Uri;
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Transcribes an audio file in short slices on the service's batch executor.
+ * Each slice re-queues the session, so concurrent file sessions take turns on
+ * the executor instead of running first-come, first-served.
+ *
+ * Subclasses can change what is done with the recognizer output through
+ * {@link #onOpened()}, {@link #onResult(String)} and {@link #onEnd(boolean)}.
+ */
+class FileTranscriptionSession extends TranscriptionSession {
+
+    private static final String TAG = "FileSession";
+    // About one second of 16 kHz 16-bit audio per slice
+    private static final int SLICE_BYTES = VoskTranscriptionService.SAMPLE_RATE * 2;
+
+    private final Uri audioUri;
+    private final byte[] buffer = new byte[4096];
+    // Bytes at the start of the buffer left over from an odd-length read
+    private int carry = 0;
+    private InputStream inputStream;
+
+    FileTranscriptionSession(VoskTranscriptionService service, Uri audioUri, Listener listener) {
+        super(service, listener);
+        this.audioUri = audioUri;
+    }
+
+    @Override
+    void onStart() {
+        service.scheduleBatch(this::open, () -> end(false));
+    }
+
+    /** Runs on the batch executor once the audio file is open, before decoding. */
+    void onOpened() throws IOException {
+    }
+
+    /** Handles one recognizer result, including the final one. */
+    void onResult(String jsonResult) throws IOException {
+        emitFinal(jsonResult);
+    }
+
+    /**
+     * Runs once when the session ends, before {@link Listener#onFinished()}.
+     * {@code succeeded} is false after an error or {@link #cancel()}.
+     */
+    void onEnd(boolean succeeded) {
+    }
+
+    private void open() {
+        try {
+            inputStream = service.openPcmStream(audioUri);
+            onOpened();
+        } catch (Exception e) {
+            Log.e(TAG, "Error opening audio file", e);
+            listener.onError("Failed to transcribe audio: " + e.getMessage());
+            end(false);
+            return;
+        }
+        decodeSlice();
+    }
+
+    private void decodeSlice() {
+        try {
+            int decoded = 0;
+            int bytesRead = 0;
+            while (isRunning() && decoded < SLICE_BYTES
+                    && (bytesRead = inputStream.read(buffer, carry, buffer.length - carry)) != -1) {
+                // Pipes and cloud providers can return odd counts; only pass
+                // whole samples and keep the odd byte for the next read
+                int available = carry + bytesRead;
+                int samplesBytes = available & ~1;
+                if (samplesBytes > 0 && recognizer.acceptWaveForm(buffer, samplesBytes)) {
+                    onResult(recognizer.getResult());
+                }
+                carry = available - samplesBytes;
+                if (carry > 0) {
+                    buffer[0] = buffer[samplesBytes];
+                }
+                decoded += bytesRead;
+            }
+
+            if (isRunning() && bytesRead != -1) {
+                service.scheduleBatch(this::decodeSlice, () -> end(false));
+                return;
+            }
+
+            if (!isCancelled()) {
+                onResult(recognizer.getFinalResult());
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error transcribing audio file", e);
+            listener.onError("Failed to transcribe audio: " + e.getMessage());
+            end(false);
+            return;
+        }
+        end(!isCancelled());
+    }
+
+    private void end(boolean succeeded) {
+        if (inputStream != null) {
+            try {
+                inputStream.close();
+            } catch (IOException e) {
+                Log.e(TAG, "Error closing audio file", e);
+            }
+            inputStream = null;
+        }
+        onEnd(succeeded);
+        finish();
+    }
+}
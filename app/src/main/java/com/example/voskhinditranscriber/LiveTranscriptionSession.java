@@ -0,0 +1,124 @@
+package com.example.voskhinditranscriber;
+
+import android.media.AudioFormat;
+import android.media.AudioRecord;
+import android.media.MediaRecorder;
+import android.os.Process;
+import android.util.Log;
+
+import java.io.IOException;
+
+/**
+ * Captures microphone audio and decodes it as it arrives, reporting partial
+ * updates while the user speaks and a final result per utterance.
+ *
+ * Capture runs on its own thread at urgent audio priority and only queues
+ * audio in a {@link RecordedAudioBuffer}; a second thread at audio priority
+ * decodes from that queue. If decoding falls behind while file sessions are
+ * busy, no audio is dropped, and the backlog can be spilled to disk under
+ * memory pressure.
+ */
+class LiveTranscriptionSession extends TranscriptionSession {
+
+    private static final String TAG = "LiveSession";
+
+    private volatile RecordedAudioBuffer audioBuffer;
+
+    LiveTranscriptionSession(VoskTranscriptionService service, Listener listener) {
+        super(service, listener);
+        enablePartialUpdates();
+    }
+
+    @Override
+    void onStart() {
+        audioBuffer = new RecordedAudioBuffer(service.newSpillFile());
+        new Thread(this::captureLoop, "vosk-live-capture").start();
+        new Thread(this::decodeLoop, "vosk-live-decode").start();
+    }
+
+    /** Audio captured but not yet decoded that is still held in memory, in bytes. */
+    long getBufferedBytes() {
+        RecordedAudioBuffer buffer = audioBuffer;
+        return buffer != null ? buffer.getMemoryBytes() : 0;
+    }
+
+    void spillBufferedAudio() throws IOException {
+        RecordedAudioBuffer buffer = audioBuffer;
+        if (buffer != null) {
+            buffer.spillToDisk();
+        }
+    }
+
+    private void captureLoop() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_AUDIO);
+
+        int sampleRate = VoskTranscriptionService.SAMPLE_RATE;
+        int bufferSize = AudioRecord.getMinBufferSize(sampleRate,
+                AudioFormat.CHANNEL_IN_MONO,
+                AudioFormat.ENCODING_PCM_16BIT);
+
+        AudioRecord audioRecord = null;
+        try {
+            audioRecord = new AudioRecord(
+                    MediaRecorder.AudioSource.MIC,
+                    sampleRate,
+                    AudioFormat.CHANNEL_IN_MONO,
+                    AudioFormat.ENCODING_PCM_16BIT,
+                    bufferSize);
+
+            if (audioRecord.getState() != AudioRecord.STATE_INITIALIZED) {
+                listener.onError("Failed to initialize audio recorder. Check microphone permissions.");
+                return;
+            }
+
+            audioRecord.startRecording();
+            short[] buffer = new short[bufferSize / 2];
+
+            while (isRunning()) {
+                int numRead = audioRecord.read(buffer, 0, buffer.length);
+                if (numRead > 0) {
+                    short[] chunk = new short[numRead];
+                    System.arraycopy(buffer, 0, chunk, 0, numRead);
+                    audioBuffer.add(chunk);
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error capturing audio", e);
+            listener.onError("Failed to record audio: " + e.getMessage());
+        } finally {
+            if (audioRecord != null) {
+                if (audioRecord.getState() == AudioRecord.STATE_INITIALIZED) {
+                    audioRecord.stop();
+                }
+                audioRecord.release();
+            }
+            audioBuffer.close();
+        }
+    }
+
+    private void decodeLoop() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_AUDIO);
+        try {
+            short[] chunk;
+            while (!isCancelled() && (chunk = audioBuffer.take()) != null) {
+                if (recognizer.acceptWaveForm(chunk, chunk.length)) {
+                    emitFinal(recognizer.getResult());
+                } else {
+                    emitPartial(recognizer.getPartialResult());
+                }
+            }
+
+            if (!isCancelled()) {
+                emitFinal(recognizer.getFinalResult());
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error in live session", e);
+            listener.onError("Failed to transcribe: " + e.getMessage());
+            // Make the capture thread stop too
+            cancel();
+        } finally {
+            audioBuffer.release();
+            finish();
+        }
+    }
+}
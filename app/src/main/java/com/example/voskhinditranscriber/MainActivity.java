@@ -5,6 +5,8 @@ import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.net.Uri;
 import android.os.Bundle;
+import android.text.Editable;
+import android.util.Log;
 import android.view.View;
 import android.widget.Button;
 import android.widget.ProgressBar;
@@ -14,6 +16,7 @@ import android.widget.Toast;
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
@@ -25,11 +28,13 @@ import java.io.File;
 
 public class MainActivity extends AppCompatActivity {
 
+    private static final String TAG = "MainActivity";
     private static final int PERMISSIONS_REQUEST_RECORD_AUDIO = 1;
     
     private FloatingActionButton recordButton;
     private Button uploadButton;
     private Button clearButton;
+    private Button exportButton;
     private TextView transcriptionTextView;
     private TextView statusTextView;
     private ProgressBar progressBar;
@@ -38,8 +43,17 @@ public class MainActivity extends AppCompatActivity {
     private VoskTranscriptionService transcriptionService;
     private boolean isRecording = false;
     private StringBuilder completeTranscription = new StringBuilder();
+    private TranscriptionSession liveSession;
+    // Where the live utterance starts in the transcription view, -1 when none is showing
+    private int liveRegionStart = -1;
+    private int backgroundJobs = 0;
+    private boolean isReloadingModel = false;
     
     private ActivityResultLauncher<String> audioPickerLauncher;
+    private ActivityResultLauncher<String> subtitleAudioPickerLauncher;
+    private ActivityResultLauncher<String> srtSaveLauncher;
+    private ActivityResultLauncher<String> vttSaveLauncher;
+    private Uri pendingSubtitleAudioUri;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -49,11 +63,15 @@ public class MainActivity extends AppCompatActivity {
         recordButton = findViewById(R.id.recordButton);
         uploadButton = findViewById(R.id.uploadButton);
         clearButton = findViewById(R.id.clearButton);
+        exportButton = findViewById(R.id.exportButton);
         transcriptionTextView = findViewById(R.id.transcriptionTextView);
         statusTextView = findViewById(R.id.statusTextView);
         progressBar = findViewById(R.id.progressBar);
         transcriptionCard = findViewById(R.id.transcriptionCard);
 
+        // Editable so live updates can replace just the changed tail
+        transcriptionTextView.setText("", TextView.BufferType.EDITABLE);
+
         // Request audio permission
         int permissionCheck = ContextCompat.checkSelfPermission(this, Manifest.permission.RECORD_AUDIO);
         if (permissionCheck != PackageManager.PERMISSION_GRANTED) {
@@ -70,9 +88,29 @@ public class MainActivity extends AppCompatActivity {
             }
         );
 
+        // Setup subtitle export: pick audio, choose a format, then pick the output file
+        subtitleAudioPickerLauncher = registerForActivityResult(
+            new ActivityResultContracts.GetContent(),
+            uri -> {
+                if (uri != null) {
+                    pendingSubtitleAudioUri = uri;
+                    chooseSubtitleFormat();
+                }
+            }
+        );
+        srtSaveLauncher = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument(SubtitleWriter.Format.SRT.mimeType),
+            uri -> onSubtitleOutputChosen(uri, SubtitleWriter.Format.SRT)
+        );
+        vttSaveLauncher = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument(SubtitleWriter.Format.WEBVTT.mimeType),
+            uri -> onSubtitleOutputChosen(uri, SubtitleWriter.Format.WEBVTT)
+        );
+
         recordButton.setOnClickListener(v -> toggleRecording());
         uploadButton.setOnClickListener(v -> selectAudioFile());
         clearButton.setOnClickListener(v -> clearTranscription());
+        exportButton.setOnClickListener(v -> subtitleAudioPickerLauncher.launch("audio/*"));
 
         // Initialize transcription service
         initializeTranscriptionService();
@@ -82,75 +120,51 @@ public class MainActivity extends AppCompatActivity {
         statusTextView.setText("Initializing Vosk model...");
         progressBar.setVisibility(View.VISIBLE);
         
-        new Thread(() -> {
-            try {
-                transcriptionService = new VoskTranscriptionService(this);
-                transcriptionService.setTranscriptionListener(new VoskTranscriptionService.TranscriptionListener() {
-                    @Override
-                    public void onPartialResult(String text) {
-                        // Not used in record mode anymore
-                    }
-
-                    @Override
-                    public void onFinalResult(String text) {
-                        runOnUiThread(() -> {
-                            if (!text.isEmpty()) {
-                                if (completeTranscription.length() > 0) {
-                                    completeTranscription.append(" ");
-                                }
-                                completeTranscription.append(text);
-                                transcriptionTextView.setText(completeTranscription.toString());
-                                transcriptionCard.setVisibility(View.VISIBLE);
-                                statusTextView.setText("✅ Transcription complete");
-                                progressBar.setVisibility(View.GONE);
-                                uploadButton.setEnabled(true);
-                            }
-                        });
-                    }
-
-                    @Override
-                    public void onError(String error) {
-                        runOnUiThread(() -> {
-                            statusTextView.setText("❌ Error occurred");
-                            progressBar.setVisibility(View.GONE);
-                            Toast.makeText(MainActivity.this, error, Toast.LENGTH_LONG).show();
-                            isRecording = false;
-                            updateRecordButton(false);
-                        });
-                    }
-
-                    @Override
-                    public void onModelReady() {
-                        runOnUiThread(() -> {
-                            statusTextView.setText("✅ Ready to record or upload audio");
-                            progressBar.setVisibility(View.GONE);
-                            recordButton.setEnabled(true);
-                            uploadButton.setEnabled(true);
-                            Toast.makeText(MainActivity.this, "Model loaded successfully!", Toast.LENGTH_SHORT).show();
-                        });
+        // The constructor does no I/O; loading runs on the service's own thread
+        transcriptionService = new VoskTranscriptionService(this);
+        transcriptionService.setTranscriptionListener(new VoskTranscriptionService.TranscriptionListener() {
+            @Override
+            public void onError(String error) {
+                runOnUiThread(() -> {
+                    if (isReloadingModel) {
+                        // The buttons stay disabled; onStart tries again next time
+                        isReloadingModel = false;
+                        statusTextView.setText("❌ Failed to reload model. Reopen the app to retry.");
+                    } else {
+                        statusTextView.setText("❌ Error occurred");
                     }
+                    progressBar.setVisibility(View.GONE);
+                    Toast.makeText(MainActivity.this, error, Toast.LENGTH_LONG).show();
+                    isRecording = false;
+                    updateRecordButton(false);
                 });
+            }
 
+            @Override
+            public void onModelReady() {
                 runOnUiThread(() -> {
+                    isReloadingModel = false;
                     statusTextView.setText("✅ Ready to record or upload audio");
                     progressBar.setVisibility(View.GONE);
                     recordButton.setEnabled(true);
                     uploadButton.setEnabled(true);
-                });
-            } catch (Exception e) {
-                runOnUiThread(() -> {
-                    String errorMsg = "Failed to initialize Vosk\n\n" +
-                                    "Please ensure:\n" +
-                                    "1. Download Hindi model from:\n   https://alphacephei.com/vosk/models\n" +
-                                    "2. Extract and rename to 'model-hi'\n" +
-                                    "3. Place in app/src/main/assets/model-hi/\n\n" +
-                                    "Error: " + e.getMessage();
-                    statusTextView.setText("❌ Failed to initialize");
-                    progressBar.setVisibility(View.GONE);
-                    Toast.makeText(MainActivity.this, errorMsg, Toast.LENGTH_LONG).show();
+                    exportButton.setEnabled(true);
+                    Toast.makeText(MainActivity.this, "Model loaded successfully!", Toast.LENGTH_SHORT).show();
                 });
             }
-        }).start();
+
+            @Override
+            public void onStartupStage(VoskTranscriptionService.StartupStage stage, long durationMs) {
+                Log.d(TAG, "Startup stage " + stage + " finished in " + durationMs + " ms");
+                if (stage == VoskTranscriptionService.StartupStage.EXTRACT) {
+                    runOnUiThread(() -> statusTextView.setText("⏳ Loading Vosk model..."));
+                }
+            }
+        });
+
+        // Start loading only once the listener is in place so the
+        // UI stays in the initializing state until the model is usable
+        transcriptionService.loadModel();
     }
 
     private void selectAudioFile() {
@@ -163,44 +177,182 @@ public class MainActivity extends AppCompatActivity {
             return;
         }
 
-        statusTextView.setText("📂 Processing audio file...");
-        progressBar.setVisibility(View.VISIBLE);
-        uploadButton.setEnabled(false);
-        recordButton.setEnabled(false);
+        onBackgroundJobStarted("📂 Processing audio file...");
+
+        // File results are collected per session and appended in one piece so
+        // they do not interleave with a live session writing at the same time
+        StringBuilder fileText = new StringBuilder();
+        transcriptionService.openFileSession(audioUri, new TranscriptionSession.Listener() {
+            private volatile boolean failed = false;
 
-        new Thread(() -> {
-            try {
-                String result = transcriptionService.transcribeAudioFile(audioUri);
+            @Override
+            public void onPartialUpdate(int retainLength, String tail, boolean stable) {
+                // File sessions only report final results
+            }
+
+            @Override
+            public void onFinalResult(String text) {
+                if (fileText.length() > 0) {
+                    fileText.append(" ");
+                }
+                fileText.append(text);
+            }
+
+            @Override
+            public void onError(String error) {
+                failed = true;
+                runOnUiThread(() -> {
+                    statusTextView.setText("❌ Failed to transcribe");
+                    Toast.makeText(MainActivity.this, "Error: " + error, Toast.LENGTH_LONG).show();
+                });
+            }
+
+            @Override
+            public void onFinished() {
+                String result = fileText.toString().trim();
                 runOnUiThread(() -> {
                     if (!result.isEmpty()) {
-                        completeTranscription.append(result);
-                        transcriptionTextView.setText(completeTranscription.toString());
-                        transcriptionCard.setVisibility(View.VISIBLE);
+                        appendTranscription(result);
                         statusTextView.setText("✅ Transcription complete");
                         Toast.makeText(MainActivity.this, "Transcription complete!", Toast.LENGTH_SHORT).show();
-                    } else {
+                    } else if (!failed) {
                         statusTextView.setText("⚠️ No speech detected");
-                        Toast.makeText(MainActivity.this, "No speech detected in audio", Toast.LENGTH_SHORT).show();
                     }
-                    progressBar.setVisibility(View.GONE);
-                    uploadButton.setEnabled(true);
-                    recordButton.setEnabled(true);
+                    onBackgroundJobFinished();
+                });
+            }
+        }).start();
+    }
+
+    private void chooseSubtitleFormat() {
+        new AlertDialog.Builder(this)
+            .setTitle(R.string.export_subtitles)
+            .setItems(new String[]{"SRT (.srt)", "WebVTT (.vtt)"}, (dialog, which) -> {
+                if (which == 0) {
+                    srtSaveLauncher.launch("subtitles." + SubtitleWriter.Format.SRT.extension);
+                } else {
+                    vttSaveLauncher.launch("subtitles." + SubtitleWriter.Format.WEBVTT.extension);
+                }
+            })
+            .setOnCancelListener(dialog -> pendingSubtitleAudioUri = null)
+            .show();
+    }
+
+    private void onSubtitleOutputChosen(Uri outputUri, SubtitleWriter.Format format) {
+        Uri audioUri = pendingSubtitleAudioUri;
+        pendingSubtitleAudioUri = null;
+        if (outputUri == null || audioUri == null) {
+            return;
+        }
+        if (transcriptionService == null || !transcriptionService.isModelReady()) {
+            Toast.makeText(this, "Please wait for model to load", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        onBackgroundJobStarted("🎬 Exporting subtitles...");
+
+        SubtitleExportSession[] export = new SubtitleExportSession[1];
+        export[0] = transcriptionService.openSubtitleExportSession(audioUri, outputUri, format,
+                new TranscriptionSession.Listener() {
+            private volatile boolean failed = false;
+
+            @Override
+            public void onPartialUpdate(int retainLength, String tail, boolean stable) {
+                // Export sessions write cues instead of reporting text
+            }
+
+            @Override
+            public void onFinalResult(String text) {
+                // Export sessions write cues instead of reporting text
+            }
+
+            @Override
+            public void onError(String error) {
+                failed = true;
+                runOnUiThread(() -> {
+                    statusTextView.setText("❌ Failed to export subtitles");
+                    Toast.makeText(MainActivity.this, "Error: " + error, Toast.LENGTH_LONG).show();
                 });
-            } catch (Exception e) {
+            }
+
+            @Override
+            public void onFinished() {
+                int cueCount = export[0].getCueCount();
                 runOnUiThread(() -> {
-                    statusTextView.setText("❌ Failed to transcribe");
-                    progressBar.setVisibility(View.GONE);
-                    uploadButton.setEnabled(true);
-                    recordButton.setEnabled(true);
-                    Toast.makeText(MainActivity.this, "Error: " + e.getMessage(), Toast.LENGTH_LONG).show();
+                    if (!failed) {
+                        if (cueCount > 0) {
+                            statusTextView.setText("✅ Exported " + cueCount + " subtitle cues");
+                        } else {
+                            statusTextView.setText("⚠️ No speech detected");
+                        }
+                    }
+                    onBackgroundJobFinished();
                 });
             }
-        }).start();
+        });
+        export[0].start();
+    }
+
+    private void onBackgroundJobStarted(String status) {
+        backgroundJobs++;
+        statusTextView.setText(status);
+        progressBar.setVisibility(View.VISIBLE);
+    }
+
+    private void onBackgroundJobFinished() {
+        backgroundJobs--;
+        if (backgroundJobs == 0) {
+            progressBar.setVisibility(View.GONE);
+        }
+    }
+
+    /**
+     * Appends committed text. The view always holds the committed transcription
+     * followed by the live utterance, if any, so the text goes in between.
+     */
+    private void appendTranscription(String text) {
+        String separator = completeTranscription.length() > 0 ? " " : "";
+        int insertAt = completeTranscription.length();
+        completeTranscription.append(separator).append(text);
+        String inserted = separator + text;
+        if (liveRegionStart >= 0 && insertAt == 0) {
+            // The live utterance had nothing before it and needs a separator now
+            inserted += " ";
+        }
+        transcriptionTextView.getEditableText().insert(insertAt, inserted);
+        if (liveRegionStart >= 0) {
+            liveRegionStart += inserted.length();
+        }
+        transcriptionCard.setVisibility(View.VISIBLE);
+    }
+
+    private void applyLiveUpdate(int retainLength, String tail, boolean stable) {
+        Editable view = transcriptionTextView.getEditableText();
+        if (liveRegionStart < 0) {
+            if (completeTranscription.length() > 0) {
+                view.append(' ');
+            }
+            liveRegionStart = view.length();
+        }
+
+        int regionLength = view.length() - liveRegionStart;
+        view.replace(liveRegionStart + Math.min(retainLength, regionLength), view.length(), tail);
+
+        if (stable) {
+            // The utterance is final: it becomes part of the committed text as is
+            if (view.length() > liveRegionStart) {
+                completeTranscription.append(view, completeTranscription.length(), view.length());
+            } else {
+                view.delete(completeTranscription.length(), view.length());
+            }
+            liveRegionStart = -1;
+        }
     }
 
     private void clearTranscription() {
         completeTranscription.setLength(0);
-        transcriptionTextView.setText("");
+        transcriptionTextView.getEditableText().clear();
+        liveRegionStart = -1;
         transcriptionCard.setVisibility(View.GONE);
         statusTextView.setText("✅ Ready to record or upload audio");
         Toast.makeText(this, "Transcription cleared", Toast.LENGTH_SHORT).show();
@@ -236,22 +388,64 @@ public class MainActivity extends AppCompatActivity {
             return;
         }
 
-        transcriptionService.startRecording();
+        liveSession = transcriptionService.openLiveSession(new TranscriptionSession.Listener() {
+            @Override
+            public void onPartialUpdate(int retainLength, String tail, boolean stable) {
+                // Already on the main thread
+                applyLiveUpdate(retainLength, tail, stable);
+            }
+
+            @Override
+            public void onFinalResult(String text) {
+                // Committed to the transcription by the stable update
+            }
+
+            @Override
+            public void onError(String error) {
+                runOnUiThread(() -> {
+                    statusTextView.setText("❌ Error occurred");
+                    Toast.makeText(MainActivity.this, error, Toast.LENGTH_LONG).show();
+                });
+            }
+
+            @Override
+            public void onFinished() {
+                runOnUiThread(() -> {
+                    liveSession = null;
+                    isRecording = false;
+                    updateRecordButton(false);
+                    recordButton.setEnabled(true);
+                    clearButton.setEnabled(true);
+                    // A cancelled session can leave an uncommitted utterance behind
+                    if (liveRegionStart >= 0) {
+                        Editable view = transcriptionTextView.getEditableText();
+                        view.delete(completeTranscription.length(), view.length());
+                        liveRegionStart = -1;
+                    }
+                    if (backgroundJobs == 0) {
+                        statusTextView.setText("✅ Ready to record or upload audio");
+                    }
+                });
+            }
+        });
+        // Update the UI first; start() reports failures through onFinished right away
         isRecording = true;
         updateRecordButton(true);
-        uploadButton.setEnabled(false);
+        // Live updates are relative to the text already shown, so clearing it
+        // mid-session would garble the utterance in progress
+        clearButton.setEnabled(false);
         statusTextView.setText("🎤 Recording...");
         transcriptionCard.setVisibility(View.VISIBLE);
+        liveSession.start();
     }
 
     private void stopRecording() {
-        transcriptionService.stopRecording();
-        isRecording = false;
-        updateRecordButton(false);
-        uploadButton.setEnabled(false);
-        statusTextView.setText("🔄 Processing recording...");
-        progressBar.setVisibility(View.VISIBLE);
-        transcriptionCard.setVisibility(View.VISIBLE);
+        if (liveSession != null) {
+            liveSession.stop();
+        }
+        // Re-enabled once the session has delivered its last result
+        recordButton.setEnabled(false);
+        statusTextView.setText("🔄 Finishing recording...");
     }
 
     @Override
@@ -267,6 +461,28 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+        // Reload the model if it was released while we were in the background
+        if (transcriptionService != null && transcriptionService.ensureModelLoaded()) {
+            isReloadingModel = true;
+            statusTextView.setText("⏳ Reloading Vosk model...");
+            progressBar.setVisibility(View.VISIBLE);
+            recordButton.setEnabled(false);
+            uploadButton.setEnabled(false);
+            exportButton.setEnabled(false);
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (transcriptionService != null) {
+            transcriptionService.onTrimMemory(level);
+        }
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
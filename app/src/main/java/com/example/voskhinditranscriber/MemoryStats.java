@@ -0,0 +1,37 @@
+package com.example.voskhinditranscriber;
+
+import android.os.Debug;
+
+/**
+ * Point-in-time snapshot of Java heap and native heap usage, used to decide how
+ * aggressively to release resources when the system asks us to trim memory.
+ */
+class MemoryStats {
+
+    final long javaHeapUsed;
+    final long javaHeapMax;
+    final long nativeHeapAllocated;
+
+    private MemoryStats(long javaHeapUsed, long javaHeapMax, long nativeHeapAllocated) {
+        this.javaHeapUsed = javaHeapUsed;
+        this.javaHeapMax = javaHeapMax;
+        this.nativeHeapAllocated = nativeHeapAllocated;
+    }
+
+    static MemoryStats capture() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = runtime.totalMemory() - runtime.freeMemory();
+        return new MemoryStats(used, runtime.maxMemory(), Debug.getNativeHeapAllocatedSize());
+    }
+
+    /** Fraction of the maximum Java heap currently in use, between 0 and 1. */
+    float javaHeapUsage() {
+        return javaHeapMax > 0 ? (float) javaHeapUsed / javaHeapMax : 0f;
+    }
+
+    @Override
+    public String toString() {
+        return "heap " + (javaHeapUsed / 1024) + "/" + (javaHeapMax / 1024) + " KB, native "
+                + (nativeHeapAllocated / 1024) + " KB";
+    }
+}
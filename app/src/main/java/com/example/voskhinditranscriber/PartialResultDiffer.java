@@ -0,0 +1,146 @@
+package com.example.voskhinditranscriber;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+/**
+ * Turns the full hypothesis Vosk reports on every chunk into incremental
+ * updates: how much of the previous text to keep and the new tail after it.
+ *
+ * Partials submitted from the decoding thread are coalesced so at most one
+ * update per display frame reaches the listener, on the main thread. Final
+ * results are never dropped; they are delivered with {@code stable = true}
+ * and start a new utterance with an empty baseline. Finals that arrive between
+ * frames are joined into a single stable update.
+ */
+class PartialResultDiffer {
+
+    interface Listener {
+        void onPartialUpdate(int retainLength, String tail, boolean stable);
+    }
+
+    private final Listener listener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Choreographer.FrameCallback frameCallback = frameTimeNanos -> drain();
+
+    // Guarded by this
+    private String pendingPartial;
+    // Finals not yet delivered, joined into one committed text; null when none.
+    // Frames stop while the screen is off, so this must not grow per result.
+    private StringBuilder pendingFinal;
+    private boolean frameScheduled = false;
+    private boolean closed = false;
+
+    // Main thread only
+    private String lastText = "";
+
+    PartialResultDiffer(Listener listener) {
+        this.listener = listener;
+    }
+
+    /** Records the latest partial hypothesis; earlier unsent partials are replaced. */
+    synchronized void submitPartial(String text) {
+        if (closed) {
+            return;
+        }
+        pendingPartial = text;
+        scheduleFrame();
+    }
+
+    /**
+     * Records the final text of the current utterance. An empty text still
+     * clears whatever partial text is showing.
+     */
+    synchronized void submitFinal(String text) {
+        if (closed) {
+            return;
+        }
+        if (pendingFinal == null) {
+            pendingFinal = new StringBuilder(text);
+        } else if (!text.isEmpty()) {
+            // Each final starts from an empty baseline, so delivering them
+            // joined commits the same text as delivering them one by one
+            if (pendingFinal.length() > 0) {
+                pendingFinal.append(' ');
+            }
+            pendingFinal.append(text);
+        }
+        pendingPartial = null;
+        scheduleFrame();
+    }
+
+    /**
+     * Delivers anything still pending, then runs {@code after} on the main
+     * thread. Nothing is delivered after this.
+     */
+    void close(Runnable after) {
+        synchronized (this) {
+            closed = true;
+        }
+        mainHandler.post(() -> {
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+            drain();
+            after.run();
+        });
+    }
+
+    private void scheduleFrame() {
+        if (frameScheduled) {
+            return;
+        }
+        frameScheduled = true;
+        // Choreographer is per looper, so register the callback from the main thread
+        mainHandler.post(() -> Choreographer.getInstance().postFrameCallback(frameCallback));
+    }
+
+    private void drain() {
+        String finalText;
+        String partial;
+        synchronized (this) {
+            frameScheduled = false;
+            finalText = pendingFinal != null ? pendingFinal.toString() : null;
+            pendingFinal = null;
+            partial = pendingPartial;
+            pendingPartial = null;
+        }
+
+        if (finalText != null) {
+            deliver(finalText, true);
+            lastText = "";
+        }
+        if (partial != null) {
+            deliver(partial, false);
+        }
+    }
+
+    private void deliver(String text, boolean stable) {
+        int retain = commonPrefixLength(lastText, text);
+        if (!stable && retain == lastText.length() && retain == text.length()) {
+            return;
+        }
+        lastText = text;
+        listener.onPartialUpdate(retain, text.substring(retain), stable);
+    }
+
+    /**
+     * Length of the prefix shared by both texts, cut back to a word boundary
+     * so the tail always starts at a whole word.
+     */
+    static int commonPrefixLength(String previous, String current) {
+        int limit = Math.min(previous.length(), current.length());
+        int i = 0;
+        while (i < limit && previous.charAt(i) == current.charAt(i)) {
+            i++;
+        }
+        boolean midWord = i > 0 && current.charAt(i - 1) != ' '
+                && ((i < previous.length() && previous.charAt(i) != ' ')
+                        || (i < current.length() && current.charAt(i) != ' '));
+        if (midWord) {
+            while (i > 0 && current.charAt(i - 1) != ' ') {
+                i--;
+            }
+        }
+        return i;
+    }
+}
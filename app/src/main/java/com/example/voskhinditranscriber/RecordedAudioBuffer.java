@@ -0,0 +1,165 @@
+package com.example.voskhinditranscriber;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayDeque;
+
+/**
+ * Queue of recorded 16-bit PCM chunks between the thread capturing audio and
+ * the thread decoding it. When decoding falls behind, for example while file
+ * sessions are busy, the backlog grows here; {@link #spillToDisk()} moves it to
+ * a little-endian PCM file under memory pressure. New chunks keep going to the
+ * file until the decoder has caught up with it, which keeps the order intact.
+ */
+class RecordedAudioBuffer {
+
+    private static final String TAG = "RecordedAudioBuffer";
+    // Even, so reads from the spill file never split a sample
+    private static final int READ_BYTES = 8192;
+
+    private final File spillFile;
+    private final ArrayDeque<short[]> chunks = new ArrayDeque<>();
+    private RandomAccessFile spill;
+    private long spillReadPosition = 0;
+    private long spillWritePosition = 0;
+    private long memoryBytes = 0;
+    private boolean closed = false;
+
+    RecordedAudioBuffer(File spillFile) {
+        this.spillFile = spillFile;
+    }
+
+    synchronized void add(short[] chunk) {
+        if (closed) {
+            return;
+        }
+        // Everything in the file is older than anything in memory, so only
+        // append to the file while memory is empty
+        if (spill != null && chunks.isEmpty()) {
+            try {
+                writeChunk(chunk);
+                notifyAll();
+                return;
+            } catch (IOException e) {
+                // Keep the audio in memory rather than losing it; later chunks
+                // queue behind it until the file has been read back
+                Log.e(TAG, "Error writing to spill file", e);
+            }
+        }
+        chunks.add(chunk);
+        memoryBytes += chunk.length * 2L;
+        notifyAll();
+    }
+
+    /**
+     * Moves all queued in-memory chunks to the spill file and routes further
+     * chunks there until the decoder has read the file back. If a write fails,
+     * the chunks not yet written stay in memory, after the ones on disk.
+     */
+    synchronized void spillToDisk() throws IOException {
+        if (chunks.isEmpty()) {
+            return;
+        }
+        if (spill == null) {
+            spill = new RandomAccessFile(spillFile, "rw");
+            spillReadPosition = 0;
+            spillWritePosition = 0;
+        }
+        Log.d(TAG, "Spilling " + memoryBytes + " bytes of audio to " + spillFile.getAbsolutePath());
+        while (!chunks.isEmpty()) {
+            // Only drop a chunk from memory once it is on disk
+            writeChunk(chunks.peek());
+            memoryBytes -= chunks.poll().length * 2L;
+        }
+    }
+
+    /**
+     * Returns the next chunk in recording order, waiting for one if needed.
+     *
+     * @return the chunk, or null once {@link #close()} was called and
+     *         everything queued has been returned
+     */
+    synchronized short[] take() throws IOException, InterruptedException {
+        while (true) {
+            if (spill != null) {
+                if (spillReadPosition < spillWritePosition) {
+                    return readSpilledChunk();
+                }
+                // Decoder caught up with the file, go back to memory
+                deleteSpill();
+            }
+            if (!chunks.isEmpty()) {
+                short[] chunk = chunks.poll();
+                memoryBytes -= chunk.length * 2L;
+                return chunk;
+            }
+            if (closed) {
+                return null;
+            }
+            wait();
+        }
+    }
+
+    /** Marks the end of recording; {@link #take()} returns null once drained. */
+    synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    /** Drops everything still queued and deletes the spill file. */
+    synchronized void release() {
+        chunks.clear();
+        memoryBytes = 0;
+        closed = true;
+        deleteSpill();
+        notifyAll();
+    }
+
+    synchronized long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    private short[] readSpilledChunk() throws IOException {
+        int length = (int) Math.min(READ_BYTES, spillWritePosition - spillReadPosition);
+        byte[] bytes = new byte[length];
+        spill.seek(spillReadPosition);
+        spill.readFully(bytes);
+        spillReadPosition += length;
+
+        short[] chunk = new short[length / 2];
+        for (int i = 0; i < chunk.length; i++) {
+            chunk[i] = (short) ((bytes[i * 2 + 1] << 8) | (bytes[i * 2] & 0xFF));
+        }
+        return chunk;
+    }
+
+    private void writeChunk(short[] chunk) throws IOException {
+        byte[] bytes = new byte[chunk.length * 2];
+        for (int i = 0; i < chunk.length; i++) {
+            bytes[i * 2] = (byte) chunk[i];
+            bytes[i * 2 + 1] = (byte) (chunk[i] >> 8);
+        }
+        spill.seek(spillWritePosition);
+        spill.write(bytes);
+        spillWritePosition += bytes.length;
+    }
+
+    private void deleteSpill() {
+        if (spill != null) {
+            try {
+                spill.close();
+            } catch (IOException e) {
+                Log.e(TAG, "Error closing spill file", e);
+            }
+            spill = null;
+        }
+        if (spillFile.exists() && !spillFile.delete()) {
+            Log.w(TAG, "Failed to delete spill file " + spillFile.getAbsolutePath());
+        }
+        spillReadPosition = 0;
+        spillWritePosition = 0;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.voskhinditranscriber;
+
+import android.net.Uri;
+import android.provider.DocumentsContract;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * File session that writes captions instead of reporting text. Word timings
+ * from each recognizer result go through a {@link CaptionCueBuilder} straight
+ * to the output file, so memory use does not grow with the length of the audio.
+ *
+ * Runs on the batch executor like any file session. If it fails or is
+ * cancelled, the half-written subtitle document is deleted.
+ */
+public class SubtitleExportSession extends FileTranscriptionSession {
+
+    private static final String TAG = "SubtitleExport";
+
+    private final Uri outputUri;
+    private final SubtitleWriter.Format format;
+    private SubtitleWriter writer;
+    private CaptionCueBuilder cues;
+    private volatile int cueCount = 0;
+
+    SubtitleExportSession(VoskTranscriptionService service, Uri audioUri, Uri outputUri,
+                          SubtitleWriter.Format format, Listener listener) {
+        super(service, audioUri, listener);
+        this.outputUri = outputUri;
+        this.format = format;
+    }
+
+    /** Number of cues written; final once {@link Listener#onFinished()} is called. */
+    public int getCueCount() {
+        return cueCount;
+    }
+
+    @Override
+    void onOpened() throws IOException {
+        Log.d(TAG, "Exporting " + format + " subtitles to " + outputUri);
+        OutputStream outputStream = service.getContentResolver().openOutputStream(outputUri);
+        if (outputStream == null) {
+            throw new IOException("Cannot open subtitle file for writing");
+        }
+        writer = new SubtitleWriter(outputStream, format);
+        cues = new CaptionCueBuilder(writer);
+        recognizer.setWords(true);
+    }
+
+    @Override
+    void onResult(String jsonResult) throws IOException {
+        JSONArray words;
+        try {
+            words = new JSONObject(jsonResult).optJSONArray("result");
+        } catch (Exception e) {
+            Log.e(TAG, "Error extracting words from JSON", e);
+            return;
+        }
+        if (words == null) {
+            return;
+        }
+
+        for (int i = 0; i < words.length(); i++) {
+            JSONObject word = words.optJSONObject(i);
+            if (word != null) {
+                cues.addWord(word.optString("word", ""),
+                        word.optDouble("start", 0),
+                        word.optDouble("end", 0));
+            }
+        }
+        cueCount = writer.getCueCount();
+    }
+
+    @Override
+    void onEnd(boolean succeeded) {
+        try {
+            if (succeeded) {
+                cues.flush();
+                cueCount = writer.getCueCount();
+            }
+            if (writer != null) {
+                writer.close();
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Error finishing subtitle file", e);
+            listener.onError("Failed to write subtitles: " + e.getMessage());
+            succeeded = false;
+        }
+
+        if (succeeded) {
+            Log.d(TAG, "Subtitle export complete: " + cueCount + " cues");
+        } else {
+            deletePartialOutput();
+        }
+    }
+
+    /**
+     * Removes a subtitle file left half-written by a failed export, so the user
+     * is not left with captions that silently stop partway through.
+     */
+    private void deletePartialOutput() {
+        try {
+            if (!DocumentsContract.deleteDocument(service.getContentResolver(), outputUri)) {
+                Log.w(TAG, "Could not delete partial subtitle file " + outputUri);
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Error deleting partial subtitle file " + outputUri, e);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.voskhinditranscriber;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Writes caption cues to an SRT or WebVTT stream one at a time, so a caption
+ * file can be produced while transcription is still running.
+ */
+public class SubtitleWriter implements Closeable {
+
+    public enum Format {
+        SRT("application/x-subrip", "srt"),
+        WEBVTT("text/vtt", "vtt");
+
+        public final String mimeType;
+        public final String extension;
+
+        Format(String mimeType, String extension) {
+            this.mimeType = mimeType;
+            this.extension = extension;
+        }
+    }
+
+    private final Writer writer;
+    private final Format format;
+    private int cueCount = 0;
+
+    public SubtitleWriter(OutputStream out, Format format) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        this.format = format;
+        if (format == Format.WEBVTT) {
+            writer.write("WEBVTT\n\n");
+        }
+    }
+
+    public void writeCue(double startSeconds, double endSeconds, String text) throws IOException {
+        cueCount++;
+        char separator = format == Format.SRT ? ',' : '.';
+        writer.write(Integer.toString(cueCount));
+        writer.write('\n');
+        writer.write(formatTime(startSeconds, separator));
+        writer.write(" --> ");
+        writer.write(formatTime(endSeconds, separator));
+        writer.write('\n');
+        writer.write(text);
+        writer.write("\n\n");
+        // Flush per cue so the file grows as transcription progresses
+        writer.flush();
+    }
+
+    public int getCueCount() {
+        return cueCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    static String formatTime(double seconds, char millisSeparator) {
+        long totalMillis = Math.max(0, Math.round(seconds * 1000));
+        long hours = totalMillis / 3600000;
+        long minutes = (totalMillis / 60000) % 60;
+        long secs = (totalMillis / 1000) % 60;
+        long millis = totalMillis % 1000;
+        return String.format(Locale.US, "%02d:%02d:%02d%c%03d", hours, minutes, secs, millisSeparator, millis);
+    }
+}
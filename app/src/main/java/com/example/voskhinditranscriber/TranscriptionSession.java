@@ -0,0 +1,173 @@
+package com.example.voskhinditranscriber;
+
+import android.util.Log;
+
+import org.json.JSONObject;
+import org.vosk.Model;
+import org.vosk.Recognizer;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * One independent transcription job with its own recognizer, state and
+ * listener. Any number of sessions can run at once against the model shared
+ * by {@link VoskTranscriptionService}.
+ *
+ * Sessions are created through the service, started once, and end either on
+ * their own (end of file), through {@link #stop()} which still delivers the
+ * final result, or through {@link #cancel()} which does not. Final results and
+ * errors arrive on the session's worker thread.
+ *
+ * Sessions that report partial results do so through
+ * {@link Listener#onPartialUpdate}: only the changed tail of the hypothesis is
+ * sent, at most once per display frame, on the main thread. Such sessions also
+ * deliver {@link Listener#onFinished()} on the main thread, after the last update.
+ */
+public abstract class TranscriptionSession {
+
+    private static final String TAG = "TranscriptionSession";
+
+    public enum State {
+        CREATED,
+        RUNNING,
+        STOPPING,
+        FINISHED
+    }
+
+    public interface Listener {
+        /**
+         * The current hypothesis changed: keep the first {@code retainLength}
+         * characters of the previous one and append {@code tail}. When
+         * {@code stable} is true the text is final and the next update starts
+         * a new utterance from empty.
+         */
+        void onPartialUpdate(int retainLength, String tail, boolean stable);
+        void onFinalResult(String text);
+        void onError(String error);
+        void onFinished();
+    }
+
+    final VoskTranscriptionService service;
+    final Listener listener;
+    private final AtomicReference<State> state = new AtomicReference<>(State.CREATED);
+    private volatile boolean cancelled = false;
+    private PartialResultDiffer partialDiffer;
+    Recognizer recognizer;
+
+    TranscriptionSession(VoskTranscriptionService service, Listener listener) {
+        this.service = service;
+        this.listener = listener;
+    }
+
+    public final void start() {
+        if (!state.compareAndSet(State.CREATED, State.RUNNING)) {
+            throw new IllegalStateException("Session already started");
+        }
+
+        Model model = service.acquireModel();
+        if (model == null) {
+            state.set(State.FINISHED);
+            service.unregisterSession(this);
+            listener.onError("Model not ready. Please wait for initialization.");
+            listener.onFinished();
+            return;
+        }
+
+        try {
+            // The first session gets the recognizer pre-built during model loading
+            recognizer = service.obtainRecognizer(model);
+        } catch (IOException e) {
+            Log.e(TAG, "Error creating recognizer", e);
+            state.set(State.FINISHED);
+            service.releaseModelRef();
+            service.unregisterSession(this);
+            listener.onError("Failed to start transcription: " + e.getMessage());
+            listener.onFinished();
+            return;
+        }
+
+        onStart();
+    }
+
+    /** Ends the session early, still delivering the result for audio seen so far. */
+    public final void stop() {
+        if (state.compareAndSet(State.CREATED, State.FINISHED)) {
+            service.unregisterSession(this);
+            return;
+        }
+        state.compareAndSet(State.RUNNING, State.STOPPING);
+    }
+
+    /** Ends the session early without delivering a final result. */
+    public final void cancel() {
+        cancelled = true;
+        stop();
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    /** Turns on partial updates; call from the subclass constructor. */
+    final void enablePartialUpdates() {
+        partialDiffer = new PartialResultDiffer(listener::onPartialUpdate);
+    }
+
+    /** Called on the caller's thread once the recognizer is ready; starts the work. */
+    abstract void onStart();
+
+    /** True while the worker should keep consuming audio. */
+    final boolean isRunning() {
+        return state.get() == State.RUNNING;
+    }
+
+    final boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Releases the recognizer and model reference. Called exactly once by the
+     * worker when it is done with the session.
+     */
+    final void finish() {
+        if (state.getAndSet(State.FINISHED) == State.FINISHED) {
+            return;
+        }
+        recognizer.close();
+        recognizer = null;
+        service.releaseModelRef();
+        service.unregisterSession(this);
+        if (partialDiffer != null) {
+            partialDiffer.close(listener::onFinished);
+        } else {
+            listener.onFinished();
+        }
+    }
+
+    final void emitPartial(String jsonResult) {
+        try {
+            String text = new JSONObject(jsonResult).optString("partial", "");
+            if (partialDiffer != null) {
+                partialDiffer.submitPartial(text);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error processing partial result", e);
+        }
+    }
+
+    final void emitFinal(String jsonResult) {
+        try {
+            String text = new JSONObject(jsonResult).optString("text", "");
+            if (partialDiffer != null) {
+                // Sent even when empty so any partial text on screen is cleared
+                partialDiffer.submitFinal(text);
+            }
+            if (!text.isEmpty()) {
+                listener.onFinalResult(text);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error processing final result", e);
+        }
+    }
+}
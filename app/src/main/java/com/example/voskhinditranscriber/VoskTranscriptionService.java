@@ -1,102 +1,225 @@
 package com.example.voskhinditranscriber;
 
+import android.content.ComponentCallbacks2;
+import android.content.ContentResolver;
 import android.content.Context;
 import android.content.res.AssetManager;
-import android.media.AudioFormat;
-import android.media.AudioRecord;
-import android.media.MediaRecorder;
 import android.net.Uri;
+import android.os.Process;
+import android.os.SystemClock;
 import android.util.Log;
 
-import org.json.JSONObject;
 import org.vosk.Model;
 import org.vosk.Recognizer;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class VoskTranscriptionService {
 
     private static final String TAG = "VoskTranscription";
-    private static final int SAMPLE_RATE = 16000;
+    static final int SAMPLE_RATE = 16000;
+    private static final int WARM_UP_SAMPLES = SAMPLE_RATE / 2;
+    // Live audio backlog size above which trim requests move it to disk
+    private static final long SPILL_THRESHOLD_BYTES = 1024 * 1024;
+    // Java heap usage above which any live audio backlog is moved to disk
+    private static final float SPILL_HEAP_USAGE = 0.5f;
+    // Measured model footprint above which the model is dropped in the background
+    private static final long RELEASE_MODEL_NATIVE_BYTES = 16L * 1024 * 1024;
+    // Leave at least half the cores for live sessions and the UI
+    private static final int BATCH_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
     
     private Context context;
     private Model model;
-    private Recognizer recognizer;
-    private AudioRecord audioRecord;
-    private Thread recognitionThread;
-    private boolean isRecording = false;
-    private boolean isModelReady = false;
+    private Recognizer idleRecognizer;
+    private volatile boolean isModelReady = false;
+    private boolean warmUpEnabled = true;
+    
+    private final Object modelLock = new Object();
+    private int activeJobs = 0;
+    private boolean isLoading = false;
+    private boolean isModelReleased = false;
+    private long modelNativeBytes = 0;
+    private boolean isShutdown = false;
+    
+    private final Set<TranscriptionSession> sessions = new CopyOnWriteArraySet<>();
+    private final AtomicInteger spillFileCounter = new AtomicInteger();
+    private final ExecutorService batchExecutor = Executors.newFixedThreadPool(BATCH_THREADS, runnable ->
+            new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, "vosk-batch"));
     
     private TranscriptionListener listener;
 
+    /**
+     * Startup stages reported through {@link TranscriptionListener#onStartupStage}.
+     * EXTRACT copies the model out of the APK, LOAD builds the native model and
+     * WARM pre-touches the model files and decodes a short synthetic buffer.
+     * WARM is only reported if the warm-up ran to completion.
+     */
+    public enum StartupStage {
+        EXTRACT,
+        LOAD,
+        WARM
+    }
+
+    /**
+     * Model lifecycle callbacks. Transcription results are delivered per
+     * session through {@link TranscriptionSession.Listener}.
+     */
     public interface TranscriptionListener {
-        void onPartialResult(String text);
-        void onFinalResult(String text);
         void onError(String error);
         void onModelReady();
+        void onStartupStage(StartupStage stage, long durationMs);
     }
 
-    public VoskTranscriptionService(Context context) throws IOException {
+    public VoskTranscriptionService(Context context) {
         this.context = context;
-        initModel();
     }
 
-    private void initModel() {
+    /**
+     * Starts loading the model in the background. Call this after
+     * {@link #setTranscriptionListener} so no startup callback is missed.
+     */
+    public void loadModel() {
+        startLoading(false);
+    }
+
+    /**
+     * Reloads the model if it was released by {@link #onTrimMemory}. The model
+     * files are already extracted and likely still in the page cache, so the
+     * asset scan, extraction and file pre-read are skipped; only LOAD and a
+     * short warm-up decode run again. If the reload fails, the listener gets
+     * {@link TranscriptionListener#onError} and the next call tries again.
+     *
+     * @return true if a reload was started or is still running
+     */
+    public boolean ensureModelLoaded() {
+        synchronized (modelLock) {
+            // Stays set until a reload succeeds, so a failed one is retried
+            if (!isModelReleased) {
+                return false;
+            }
+        }
+        Log.d(TAG, "Reloading released model");
+        startLoading(true);
+        return true;
+    }
+
+    private void startLoading(boolean reload) {
+        synchronized (modelLock) {
+            if (isShutdown || isLoading || model != null) {
+                return;
+            }
+            isLoading = true;
+        }
+        initModel(reload);
+    }
+
+    /**
+     * Enables or disables the warm-up pass that runs after the model is loaded.
+     * Must be called before {@link #loadModel()}.
+     */
+    public void setWarmUpEnabled(boolean enabled) {
+        this.warmUpEnabled = enabled;
+    }
+
+    private void initModel(boolean reload) {
         new Thread(() -> {
             try {
-                // Check if model exists in assets
-                AssetManager assetManager = context.getAssets();
-                String[] assets = assetManager.list("");
-                boolean modelFound = false;
+                long stageStart = SystemClock.elapsedRealtime();
+                File modelDir = new File(context.getFilesDir(), "model-hi");
+                
+                if (!reload || !modelDir.exists()) {
+                    // Check if model exists in assets
+                    AssetManager assetManager = context.getAssets();
+                    String[] assets = assetManager.list("");
+                    boolean modelFound = false;
                 
-                if (assets != null) {
-                    for (String asset : assets) {
-                        Log.d(TAG, "Found asset: " + asset);
-                        if (asset.equals("model-hi")) {
-                            modelFound = true;
-                            break;
+                    if (assets != null) {
+                        for (String asset : assets) {
+                            Log.d(TAG, "Found asset: " + asset);
+                            if (asset.equals("model-hi")) {
+                                modelFound = true;
+                                break;
+                            }
                         }
                     }
-                }
                 
-                if (!modelFound) {
-                    String errorMsg = "Model folder 'model-hi' not found in assets.\n\n" +
-                                    "Please download Vosk Hindi model from:\n" +
-                                    "https://alphacephei.com/vosk/models\n\n" +
-                                    "Extract and place it as:\n" +
-                                    "app/src/main/assets/model-hi/";
-                    Log.e(TAG, errorMsg);
-                    if (listener != null) {
-                        listener.onError(errorMsg);
+                    if (!modelFound) {
+                        String errorMsg = "Model folder 'model-hi' not found in assets.\n\n" +
+                                        "Please download Vosk Hindi model from:\n" +
+                                        "https://alphacephei.com/vosk/models\n\n" +
+                                        "Extract and place it as:\n" +
+                                        "app/src/main/assets/model-hi/";
+                        Log.e(TAG, errorMsg);
+                        if (listener != null && !isShutdownRequested()) {
+                            listener.onError(errorMsg);
+                        }
+                        return;
                     }
-                    return;
-                }
-                
-                // Copy model from assets to internal storage
-                File modelDir = new File(context.getFilesDir(), "model-hi");
                 
-                if (!modelDir.exists()) {
-                    Log.d(TAG, "Copying model from assets to " + modelDir.getAbsolutePath());
-                    copyAssetFolder(assetManager, "model-hi", modelDir.getAbsolutePath());
-                } else {
-                    Log.d(TAG, "Model already exists at " + modelDir.getAbsolutePath());
+                    // Copy model from assets to internal storage
+                    if (!modelDir.exists()) {
+                        Log.d(TAG, "Copying model from assets to " + modelDir.getAbsolutePath());
+                        copyAssetFolder(assetManager, "model-hi", modelDir.getAbsolutePath());
+                    } else {
+                        Log.d(TAG, "Model already exists at " + modelDir.getAbsolutePath());
+                    }
+                    stageStart = reportStage(StartupStage.EXTRACT, stageStart);
                 }
                 
                 // Load the model
                 Log.d(TAG, "Loading model from " + modelDir.getAbsolutePath());
-                this.model = new Model(modelDir.getAbsolutePath());
-                this.recognizer = new Recognizer(model, SAMPLE_RATE);
+                long nativeBefore = MemoryStats.capture().nativeHeapAllocated;
+                Model loadedModel = new Model(modelDir.getAbsolutePath());
+                Recognizer standby = new Recognizer(loadedModel, SAMPLE_RATE);
+                synchronized (modelLock) {
+                    if (isShutdown) {
+                        // The activity went away while the model was loading;
+                        // nothing would ever close these or use the callbacks
+                        Log.d(TAG, "Service shut down during loading, discarding model");
+                        standby.close();
+                        loadedModel.close();
+                        return;
+                    }
+                    this.model = loadedModel;
+                    this.idleRecognizer = standby;
+                    this.isModelReleased = false;
+                }
                 this.isModelReady = true;
+                modelNativeBytes = MemoryStats.capture().nativeHeapAllocated - nativeBefore;
+                Log.d(TAG, "Model uses about " + (modelNativeBytes / 1024) + " KB of native heap");
+                stageStart = reportStage(StartupStage.LOAD, stageStart);
                 
+                // Sessions can start now. The warm-up below holds its own model
+                // reference and backs off as soon as a live session is running,
+                // since live decoding needs the CPU and disk more than it does
                 Log.d(TAG, "Model initialized successfully");
                 if (listener != null) {
                     listener.onModelReady();
                 }
                 
+                if (warmUpEnabled) {
+                    // A reload follows a recent load, so skip the file pre-read
+                    if (warmUp(modelDir, !reload)) {
+                        reportStage(StartupStage.WARM, stageStart);
+                    } else {
+                        Log.d(TAG, "Startup stage " + StartupStage.WARM + " skipped");
+                    }
+                }
+                
             } catch (Exception e) {
                 String errorMsg = "Failed to load model: " + e.getMessage() + 
                                 "\n\nPlease ensure:\n" +
@@ -106,13 +229,160 @@ public class VoskTranscriptionService {
                                 "4. Contains folders: am/, conf/, graph/";
                 Log.e(TAG, errorMsg, e);
                 this.isModelReady = false;
-                if (listener != null) {
+                if (listener != null && !isShutdownRequested()) {
                     listener.onError(errorMsg);
                 }
+            } finally {
+                synchronized (modelLock) {
+                    isLoading = false;
+                }
             }
         }).start();
     }
     
+    private boolean isShutdownRequested() {
+        synchronized (modelLock) {
+            return isShutdown;
+        }
+    }
+
+    private long reportStage(StartupStage stage, long stageStart) {
+        long now = SystemClock.elapsedRealtime();
+        long durationMs = now - stageStart;
+        Log.d(TAG, "Startup stage " + stage + " took " + durationMs + " ms");
+        if (listener != null) {
+            listener.onStartupStage(stage, durationMs);
+        }
+        return now;
+    }
+
+    /**
+     * Pre-reads the model files and runs a short synthetic decode.
+     *
+     * @return true if the warm-up ran to completion, false if it was skipped
+     *         or failed
+     */
+    private boolean warmUp(File modelDir, boolean preReadFiles) {
+        // Keeps shutdown() or a trim request from closing the model under us
+        Model warmUpModel = acquireModel();
+        if (warmUpModel == null) {
+            return false;
+        }
+        
+        // Warm-up is opportunistic work, keep it below live sessions
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        try {
+            if (preReadFiles) {
+                // Fault the model files into the page cache so the first real
+                // decode does not stall on disk reads
+                long touched = touchFiles(modelDir, new byte[64 * 1024]);
+                Log.d(TAG, "Warm-up touched " + touched + " bytes of model data");
+            }
+            
+            if (hasLiveSession()) {
+                // The live session's own first decode does the same work
+                Log.d(TAG, "Live session running, skipping warm-up decode");
+                return false;
+            }
+            
+            // Decode a short low-level noise buffer to trigger lazy native initialization
+            short[] samples = new short[WARM_UP_SAMPLES];
+            int seed = 12345;
+            for (int i = 0; i < samples.length; i++) {
+                seed = seed * 1103515245 + 12345;
+                samples[i] = (short) ((seed >> 16) % 64);
+            }
+            
+            Recognizer warmUpRecognizer = new Recognizer(warmUpModel, SAMPLE_RATE);
+            try {
+                warmUpRecognizer.acceptWaveForm(samples, samples.length);
+                warmUpRecognizer.getFinalResult();
+            } finally {
+                warmUpRecognizer.close();
+            }
+            return true;
+        } catch (Exception e) {
+            // Warm-up is best effort; the model is already usable without it
+            Log.w(TAG, "Model warm-up failed", e);
+            return false;
+        } finally {
+            releaseModelRef();
+        }
+    }
+
+    private boolean hasLiveSession() {
+        for (TranscriptionSession session : sessions) {
+            if (session instanceof LiveTranscriptionSession) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Marks the start of a job that decodes with the shared model.
+     *
+     * @return the model, or null if it is not loaded
+     */
+    Model acquireModel() {
+        synchronized (modelLock) {
+            if (model == null || isShutdown) {
+                return null;
+            }
+            activeJobs++;
+            return model;
+        }
+    }
+
+    void releaseModelRef() {
+        synchronized (modelLock) {
+            activeJobs--;
+            // The last job to finish after shutdown() closes the model
+            if (activeJobs == 0 && isShutdown && model != null) {
+                model.close();
+                model = null;
+            }
+        }
+    }
+
+    /**
+     * Hands out the recognizer pre-built during loading, or a new one if it was
+     * already taken or dropped. Caller must hold a model reference.
+     */
+    Recognizer obtainRecognizer(Model jobModel) throws IOException {
+        synchronized (modelLock) {
+            if (idleRecognizer != null) {
+                Recognizer pooled = idleRecognizer;
+                idleRecognizer = null;
+                return pooled;
+            }
+        }
+        return new Recognizer(jobModel, SAMPLE_RATE);
+    }
+
+    private long touchFiles(File file, byte[] buffer) throws IOException {
+        if (file.isDirectory()) {
+            long total = 0;
+            File[] children = file.listFiles();
+            if (children != null) {
+                for (File child : children) {
+                    total += touchFiles(child, buffer);
+                }
+            }
+            return total;
+        }
+        
+        long total = 0;
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            // Stop reading as soon as a live session needs the disk and CPU
+            while (!hasLiveSession() && (read = in.read(buffer)) != -1) {
+                total += read;
+            }
+        }
+        return total;
+    }
+    
     private void copyAssetFolder(AssetManager assetManager, String srcPath, String dstPath) throws IOException {
         String[] assets = assetManager.list(srcPath);
         
@@ -177,319 +447,180 @@ public class VoskTranscriptionService {
         return isModelReady;
     }
 
-    public String transcribeAudioFile(Uri audioUri) throws IOException {
-        if (!isModelReady || model == null) {
-            throw new IOException("Model not ready. Please wait for initialization.");
-        }
+    /**
+     * Opens a session that transcribes the microphone live. Call
+     * {@link TranscriptionSession#start()} to begin and stop() to finish.
+     */
+    public TranscriptionSession openLiveSession(TranscriptionSession.Listener sessionListener) {
+        TranscriptionSession session = new LiveTranscriptionSession(this, sessionListener);
+        sessions.add(session);
+        return session;
+    }
 
-        Log.d(TAG, "Starting transcription of audio file: " + audioUri);
-        
-        // Create a new recognizer for file transcription
-        Recognizer fileRecognizer = new Recognizer(model, SAMPLE_RATE);
-        StringBuilder completeText = new StringBuilder();
-        
-        try (InputStream inputStream = context.getContentResolver().openInputStream(audioUri)) {
-            if (inputStream == null) {
-                throw new IOException("Cannot open audio file");
-            }
-            
-            // Skip WAV header if present (44 bytes)
-            byte[] header = new byte[44];
-            inputStream.read(header);
-            
-            // Check if it's a WAV file
-            boolean isWav = header[0] == 'R' && header[1] == 'I' && 
-                           header[2] == 'F' && header[3] == 'F';
-            
-            if (!isWav) {
-                // Reset stream if not WAV - just process as raw audio
-                inputStream.close();
-                return transcribeRawAudio(audioUri, fileRecognizer, completeText);
-            }
-            
-            // Process audio data in chunks
-            byte[] buffer = new byte[4096];
-            int bytesRead;
-            
-            while ((bytesRead = inputStream.read(buffer)) != -1) {
-                // Convert bytes to shorts (16-bit PCM)
-                short[] audioData = new short[bytesRead / 2];
-                for (int i = 0; i < audioData.length; i++) {
-                    audioData[i] = (short) ((buffer[i * 2 + 1] << 8) | (buffer[i * 2] & 0xFF));
-                }
-                
-                if (fileRecognizer.acceptWaveForm(audioData, audioData.length)) {
-                    String result = fileRecognizer.getResult();
-                    String text = extractTextFromJson(result);
-                    if (!text.isEmpty()) {
-                        if (completeText.length() > 0) {
-                            completeText.append(" ");
-                        }
-                        completeText.append(text);
-                        Log.d(TAG, "Intermediate result: " + text);
-                    }
-                }
-            }
-            
-            // Get final result
-            String finalResult = fileRecognizer.getFinalResult();
-            String finalText = extractTextFromJson(finalResult);
-            if (!finalText.isEmpty()) {
-                if (completeText.length() > 0) {
-                    completeText.append(" ");
-                }
-                completeText.append(finalText);
-            }
-            
-            Log.d(TAG, "Complete transcription: " + completeText.toString());
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Error transcribing audio file", e);
-            throw new IOException("Failed to transcribe audio: " + e.getMessage());
-        } finally {
-            fileRecognizer.close();
-        }
-        
-        return completeText.toString().trim();
+    /**
+     * Opens a session that transcribes an audio file in the background. It can
+     * run alongside a live session and other file sessions.
+     */
+    public TranscriptionSession openFileSession(Uri audioUri, TranscriptionSession.Listener sessionListener) {
+        TranscriptionSession session = new FileTranscriptionSession(this, audioUri, sessionListener);
+        sessions.add(session);
+        return session;
     }
 
-    private String transcribeRawAudio(Uri audioUri, Recognizer fileRecognizer, StringBuilder completeText) throws IOException {
-        try (InputStream inputStream = context.getContentResolver().openInputStream(audioUri)) {
-            byte[] buffer = new byte[4096];
-            int bytesRead;
-            
-            while ((bytesRead = inputStream.read(buffer)) != -1) {
-                short[] audioData = new short[bytesRead / 2];
-                for (int i = 0; i < audioData.length; i++) {
-                    audioData[i] = (short) ((buffer[i * 2 + 1] << 8) | (buffer[i * 2] & 0xFF));
-                }
-                
-                if (fileRecognizer.acceptWaveForm(audioData, audioData.length)) {
-                    String result = fileRecognizer.getResult();
-                    String text = extractTextFromJson(result);
-                    if (!text.isEmpty()) {
-                        if (completeText.length() > 0) {
-                            completeText.append(" ");
-                        }
-                        completeText.append(text);
-                    }
-                }
-            }
-            
-            String finalResult = fileRecognizer.getFinalResult();
-            String finalText = extractTextFromJson(finalResult);
-            if (!finalText.isEmpty()) {
-                if (completeText.length() > 0) {
-                    completeText.append(" ");
-                }
-                completeText.append(finalText);
-            }
-        }
-        
-        return completeText.toString().trim();
+    /**
+     * Opens a file session that writes SRT or WebVTT captions for the audio to
+     * {@code outputUri} while it is transcribed. It shares the batch executor
+     * and lifecycle of other file sessions.
+     */
+    public SubtitleExportSession openSubtitleExportSession(Uri audioUri, Uri outputUri,
+                                                           SubtitleWriter.Format format,
+                                                           TranscriptionSession.Listener sessionListener) {
+        SubtitleExportSession session = new SubtitleExportSession(this, audioUri, outputUri, format, sessionListener);
+        sessions.add(session);
+        return session;
+    }
+
+    void unregisterSession(TranscriptionSession session) {
+        sessions.remove(session);
     }
 
-    private String extractTextFromJson(String jsonResult) {
+    /**
+     * Queues a slice of batch work. Batch threads run at background priority,
+     * below live sessions. {@code onRejected} runs instead if the service has
+     * been shut down.
+     */
+    void scheduleBatch(Runnable task, Runnable onRejected) {
         try {
-            JSONObject obj = new JSONObject(jsonResult);
-            return obj.optString("text", "");
-        } catch (Exception e) {
-            Log.e(TAG, "Error extracting text from JSON", e);
-            return "";
+            batchExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            onRejected.run();
         }
     }
 
-    private File recordedAudioFile;
-    private FileOutputStream audioOutputStream;
-    private java.util.List<short[]> recordedAudioChunks = new java.util.ArrayList<>();
+    ContentResolver getContentResolver() {
+        return context.getContentResolver();
+    }
 
-    public void startRecording() {
-        if (!isModelReady || recognizer == null) {
-            String errorMsg = "Recognizer not initialized. Please wait for model to load.\n\n" +
-                            "If this persists, the model may not be installed correctly.\n" +
-                            "Download from: https://alphacephei.com/vosk/models";
-            if (listener != null) {
-                listener.onError(errorMsg);
-            }
-            Log.e(TAG, errorMsg);
-            return;
-        }
+    /** A cache file a live session can spill its audio backlog to. */
+    File newSpillFile() {
+        return new File(context.getCacheDir(), "live-spill-" + spillFileCounter.incrementAndGet() + ".pcm");
+    }
 
-        if (isRecording) {
-            return;
+    /**
+     * Opens an audio file as raw 16-bit PCM, skipping the 44-byte header if it
+     * is a WAV file.
+     */
+    InputStream openPcmStream(Uri audioUri) throws IOException {
+        InputStream inputStream = context.getContentResolver().openInputStream(audioUri);
+        if (inputStream == null) {
+            throw new IOException("Cannot open audio file");
         }
-
-        // Clear previous recording
-        recordedAudioChunks.clear();
-
-        int bufferSize = AudioRecord.getMinBufferSize(SAMPLE_RATE, 
-                AudioFormat.CHANNEL_IN_MONO, 
-                AudioFormat.ENCODING_PCM_16BIT);
-
-        audioRecord = new AudioRecord(
-                MediaRecorder.AudioSource.MIC,
-                SAMPLE_RATE,
-                AudioFormat.CHANNEL_IN_MONO,
-                AudioFormat.ENCODING_PCM_16BIT,
-                bufferSize);
-
-        if (audioRecord.getState() != AudioRecord.STATE_INITIALIZED) {
-            if (listener != null) {
-                listener.onError("Failed to initialize audio recorder. Check microphone permissions.");
-            }
-            return;
+        
+        byte[] header = new byte[44];
+        int headerRead = inputStream.read(header);
+        boolean isWav = headerRead >= 4 && header[0] == 'R' && header[1] == 'I' &&
+                       header[2] == 'F' && header[3] == 'F';
+        if (isWav) {
+            return inputStream;
         }
-
-        audioRecord.startRecording();
-        isRecording = true;
-
-        // Record audio in memory for later transcription
-        recognitionThread = new Thread(() -> {
-            short[] buffer = new short[bufferSize];
-            
-            while (isRecording) {
-                int numRead = audioRecord.read(buffer, 0, buffer.length);
-                
-                if (numRead > 0) {
-                    // Store audio data for later transcription
-                    short[] chunk = new short[numRead];
-                    System.arraycopy(buffer, 0, chunk, 0, numRead);
-                    recordedAudioChunks.add(chunk);
-                }
-            }
-            
-            Log.d(TAG, "Recording stopped. Total chunks: " + recordedAudioChunks.size());
-        });
-
-        recognitionThread.start();
+        
+        // Not a WAV file, reopen and treat the whole file as raw audio
+        inputStream.close();
+        inputStream = context.getContentResolver().openInputStream(audioUri);
+        if (inputStream == null) {
+            throw new IOException("Cannot open audio file");
+        }
+        return inputStream;
     }
 
-    public void stopRecording() {
-        if (!isRecording) {
-            return;
+    /**
+     * Releases resources according to the trim level reported by the system,
+     * using measured heap usage and model footprint to pick what to drop:
+     * the idle recognizer first, then the undecoded audio backlog of live
+     * sessions goes to disk, and once the app is in the background the model
+     * itself is released if no session is using it.
+     */
+    public void onTrimMemory(int level) {
+        MemoryStats stats = MemoryStats.capture();
+        Log.d(TAG, "onTrimMemory(" + level + "): " + stats + ", model native "
+                + (modelNativeBytes / 1024) + " KB");
+
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) {
+            releaseIdleRecognizer();
         }
 
-        isRecording = false;
-
-        if (recognitionThread != null) {
-            try {
-                recognitionThread.join(1000);
-            } catch (InterruptedException e) {
-                Log.e(TAG, "Error stopping recognition thread", e);
-            }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            spillRecordedAudio(level, stats);
         }
 
-        if (audioRecord != null) {
-            audioRecord.stop();
-            audioRecord.release();
-            audioRecord = null;
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND
+                && (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE
+                        || modelNativeBytes >= RELEASE_MODEL_NATIVE_BYTES)) {
+            releaseModel();
         }
-
-        // Now transcribe the recorded audio
-        transcribeRecordedAudio();
     }
 
-    private void transcribeRecordedAudio() {
-        new Thread(() -> {
-            try {
-                Log.d(TAG, "Starting transcription of recorded audio...");
-                
-                if (recordedAudioChunks.isEmpty()) {
-                    if (listener != null) {
-                        listener.onError("No audio recorded");
-                    }
-                    return;
-                }
-
-                // Create a new recognizer for transcription
-                Recognizer fileRecognizer = new Recognizer(model, SAMPLE_RATE);
-                StringBuilder completeText = new StringBuilder();
-
-                // Process all recorded chunks
-                for (short[] chunk : recordedAudioChunks) {
-                    if (fileRecognizer.acceptWaveForm(chunk, chunk.length)) {
-                        String result = fileRecognizer.getResult();
-                        String text = extractTextFromJson(result);
-                        if (!text.isEmpty()) {
-                            if (completeText.length() > 0) {
-                                completeText.append(" ");
-                            }
-                            completeText.append(text);
-                            Log.d(TAG, "Intermediate result: " + text);
-                        }
-                    }
-                }
-
-                // Get final result
-                String finalResult = fileRecognizer.getFinalResult();
-                String finalText = extractTextFromJson(finalResult);
-                if (!finalText.isEmpty()) {
-                    if (completeText.length() > 0) {
-                        completeText.append(" ");
-                    }
-                    completeText.append(finalText);
-                }
-
-                fileRecognizer.close();
-
-                String fullTranscription = completeText.toString().trim();
-                Log.d(TAG, "Complete transcription: " + fullTranscription);
-
-                if (!fullTranscription.isEmpty() && listener != null) {
-                    listener.onFinalResult(fullTranscription);
-                } else if (listener != null) {
-                    listener.onError("No speech detected in recording");
-                }
-
-                // Clear the recorded chunks
-                recordedAudioChunks.clear();
-
-            } catch (Exception e) {
-                Log.e(TAG, "Error transcribing recorded audio", e);
-                if (listener != null) {
-                    listener.onError("Failed to transcribe: " + e.getMessage());
-                }
-            }
-        }).start();
+    private void releaseIdleRecognizer() {
+        Recognizer idle;
+        synchronized (modelLock) {
+            idle = idleRecognizer;
+            idleRecognizer = null;
+        }
+        if (idle != null) {
+            Log.d(TAG, "Releasing idle recognizer");
+            idle.close();
+        }
     }
 
-    private void processPartialResult(String jsonResult) {
-        try {
-            JSONObject obj = new JSONObject(jsonResult);
-            String text = obj.optString("partial", "");
-            
-            if (!text.isEmpty() && listener != null) {
-                listener.onPartialResult(text);
+    private void spillRecordedAudio(int level, MemoryStats stats) {
+        boolean hidden = level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN;
+        for (TranscriptionSession session : sessions) {
+            if (!(session instanceof LiveTranscriptionSession)) {
+                continue;
+            }
+            LiveTranscriptionSession live = (LiveTranscriptionSession) session;
+            long buffered = live.getBufferedBytes();
+            if (buffered > 0 && (hidden || buffered >= SPILL_THRESHOLD_BYTES
+                    || stats.javaHeapUsage() >= SPILL_HEAP_USAGE)) {
+                try {
+                    live.spillBufferedAudio();
+                } catch (IOException e) {
+                    Log.e(TAG, "Error spilling recorded audio to disk", e);
+                }
             }
-        } catch (Exception e) {
-            Log.e(TAG, "Error processing partial result", e);
         }
     }
 
-    private void processFinalResult(String jsonResult) {
-        try {
-            JSONObject obj = new JSONObject(jsonResult);
-            String text = obj.optString("text", "");
-            
-            if (!text.isEmpty() && listener != null) {
-                listener.onFinalResult(text);
+    private void releaseModel() {
+        Model released;
+        synchronized (modelLock) {
+            if (model == null || isLoading || activeJobs > 0) {
+                return;
             }
-        } catch (Exception e) {
-            Log.e(TAG, "Error processing final result", e);
+            released = model;
+            model = null;
+            isModelReady = false;
+            isModelReleased = true;
         }
+        Log.d(TAG, "Releasing model to free about " + (modelNativeBytes / 1024) + " KB");
+        released.close();
     }
 
     public void shutdown() {
-        stopRecording();
-        
-        if (recognizer != null) {
-            recognizer.close();
-            recognizer = null;
+        for (TranscriptionSession session : sessions) {
+            session.cancel();
         }
+        batchExecutor.shutdown();
         
-        if (model != null) {
-            model.close();
-            model = null;
+        releaseIdleRecognizer();
+        
+        // Sessions still winding down hold the model; the last one closes it
+        synchronized (modelLock) {
+            isShutdown = true;
+            if (activeJobs == 0 && model != null) {
+                model.close();
+                model = null;
+            }
         }
         
         isModelReady = false;
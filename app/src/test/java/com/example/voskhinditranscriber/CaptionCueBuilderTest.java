@@ -0,0 +1,114 @@
+package com.example.voskhinditranscriber;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+public class CaptionCueBuilderTest {
+
+    private ByteArrayOutputStream out;
+    private SubtitleWriter writer;
+    private CaptionCueBuilder builder;
+
+    @Before
+    public void setUp() throws Exception {
+        out = new ByteArrayOutputStream();
+        writer = new SubtitleWriter(out, SubtitleWriter.Format.SRT);
+        builder = new CaptionCueBuilder(writer);
+    }
+
+    @Test
+    public void closeWords_stayInOneCue() throws Exception {
+        builder.addWord("one", 0.0, 0.4);
+        builder.addWord("two", 0.5, 0.9);
+        builder.addWord("three", 1.0, 1.4);
+        builder.flush();
+
+        assertEquals("1\n00:00:00,000 --> 00:00:01,400\none two three\n\n", output());
+    }
+
+    @Test
+    public void pause_startsNewCue() throws Exception {
+        builder.addWord("one", 0.0, 0.4);
+        builder.addWord("two", 0.5, 0.9);
+        // 0.7 s gap after "two"
+        builder.addWord("three", 1.6, 2.0);
+        builder.flush();
+
+        assertEquals("1\n00:00:00,000 --> 00:00:00,900\none two\n\n"
+                + "2\n00:00:01,600 --> 00:00:02,000\nthree\n\n", output());
+    }
+
+    @Test
+    public void longCue_splitsByDuration() throws Exception {
+        double time = 0;
+        for (int i = 0; i < 10; i++) {
+            builder.addWord("w" + i, time, time + 0.6);
+            time += 0.65;
+        }
+        builder.flush();
+
+        // Cue ends once the next word would take it past six seconds
+        assertEquals(2, writer.getCueCount());
+        assertTrue(output().startsWith(
+                "1\n00:00:00,000 --> 00:00:05,800\nw0 w1 w2 w3 w4 w5 w6 w7 w8\n\n"));
+    }
+
+    @Test
+    public void longText_splitsWhenItNoLongerFitsTwoLines() throws Exception {
+        // 10 characters per word with its space, so 8 words need 79 characters
+        for (int i = 0; i < 9; i++) {
+            builder.addWord("word" + i + "abcd", i * 0.3, i * 0.3 + 0.25);
+        }
+        builder.flush();
+
+        assertEquals(2, writer.getCueCount());
+        String[] cues = output().split("\n\n");
+        String firstText = cues[0].substring(cues[0].indexOf('\n', cues[0].indexOf("-->")) + 1);
+        assertEquals("word0abcd word1abcd word2abcd word3abcd\n"
+                + "word4abcd word5abcd word6abcd word7abcd", firstText);
+        assertTrue(cues[1].endsWith("\nword8abcd"));
+    }
+
+    @Test
+    public void flush_withoutWordsWritesNothing() throws Exception {
+        builder.flush();
+        builder.addWord("", 0.0, 0.5);
+        builder.flush();
+
+        assertEquals(0, writer.getCueCount());
+        assertEquals("", output());
+    }
+
+    @Test
+    public void wrap_keepsShortTextOnOneLine() {
+        assertEquals("short caption", CaptionCueBuilder.wrap("short caption"));
+    }
+
+    @Test
+    public void wrap_breaksAtSpaceNearestMiddle() {
+        String text = "the quick brown fox jumps over the lazy dog again and again";
+        String wrapped = CaptionCueBuilder.wrap(text);
+
+        assertEquals("the quick brown fox jumps over\nthe lazy dog again and again", wrapped);
+        for (String line : wrapped.split("\n")) {
+            assertTrue(line.length() <= CaptionCueBuilder.MAX_LINE_CHARS);
+        }
+    }
+
+    @Test
+    public void wrap_leavesSingleLongWordAlone() {
+        String word = "abcdefghijklmnopqrstuvwxyzabcdefghijklmnopqrstuvwxyz";
+        assertEquals(word, CaptionCueBuilder.wrap(word));
+    }
+
+    private String output() throws Exception {
+        writer.close();
+        return out.toString(StandardCharsets.UTF_8.name());
+    }
+}
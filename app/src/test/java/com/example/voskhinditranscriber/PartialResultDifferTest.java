@@ -0,0 +1,57 @@
+package com.example.voskhinditranscriber;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class PartialResultDifferTest {
+
+    @Test
+    public void commonPrefixLength_growingWordBacksOffToWordStart() {
+        // "wor" became "world", so the whole word is resent
+        assertEquals(6, PartialResultDiffer.commonPrefixLength("hello wor", "hello world"));
+    }
+
+    @Test
+    public void commonPrefixLength_changedWordBacksOffToWordStart() {
+        assertEquals(6, PartialResultDiffer.commonPrefixLength("hello world", "hello worm"));
+    }
+
+    @Test
+    public void commonPrefixLength_appendedWordKeepsPrevious() {
+        assertEquals(5, PartialResultDiffer.commonPrefixLength("hello", "hello world"));
+    }
+
+    @Test
+    public void commonPrefixLength_shrinkingHypothesisKeepsWholeWords() {
+        assertEquals(5, PartialResultDiffer.commonPrefixLength("hello world", "hello"));
+        assertEquals(6, PartialResultDiffer.commonPrefixLength("hello big world", "hello world"));
+    }
+
+    @Test
+    public void commonPrefixLength_shrunkWordBacksOffToWordStart() {
+        assertEquals(6, PartialResultDiffer.commonPrefixLength("hello worlds", "hello world"));
+    }
+
+    @Test
+    public void commonPrefixLength_identicalTexts() {
+        assertEquals(11, PartialResultDiffer.commonPrefixLength("hello world", "hello world"));
+    }
+
+    @Test
+    public void commonPrefixLength_emptyTexts() {
+        assertEquals(0, PartialResultDiffer.commonPrefixLength("", "hello"));
+        assertEquals(0, PartialResultDiffer.commonPrefixLength("hello", ""));
+        assertEquals(0, PartialResultDiffer.commonPrefixLength("", ""));
+    }
+
+    @Test
+    public void commonPrefixLength_firstWordChangedResendsEverything() {
+        assertEquals(0, PartialResultDiffer.commonPrefixLength("namaste", "namaskar"));
+    }
+
+    @Test
+    public void commonPrefixLength_devanagariWords() {
+        assertEquals(7, PartialResultDiffer.commonPrefixLength("नमस्ते दु", "नमस्ते दुनिया"));
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.voskhinditranscriber;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+public class SubtitleWriterTest {
+
+    @Test
+    public void formatTime_usesCommaForSrtAndDotForVtt() {
+        assertEquals("00:00:01,250", SubtitleWriter.formatTime(1.25, ','));
+        assertEquals("00:00:01.250", SubtitleWriter.formatTime(1.25, '.'));
+    }
+
+    @Test
+    public void formatTime_rollsOverMinutesAndHours() {
+        assertEquals("00:01:00,000", SubtitleWriter.formatTime(60, ','));
+        assertEquals("01:00:00,000", SubtitleWriter.formatTime(3600, ','));
+        assertEquals("01:01:01,500", SubtitleWriter.formatTime(3661.5, ','));
+    }
+
+    @Test
+    public void formatTime_roundsUpIntoNextHour() {
+        assertEquals("01:00:00,000", SubtitleWriter.formatTime(3599.9996, ','));
+    }
+
+    @Test
+    public void formatTime_clampsNegativeTimes() {
+        assertEquals("00:00:00,000", SubtitleWriter.formatTime(-0.5, ','));
+    }
+
+    @Test
+    public void writeCue_srt() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SubtitleWriter writer = new SubtitleWriter(out, SubtitleWriter.Format.SRT);
+        writer.writeCue(0.5, 2.0, "नमस्ते दुनिया");
+        writer.writeCue(3.0, 4.25, "second");
+        writer.close();
+
+        assertEquals(2, writer.getCueCount());
+        assertEquals("1\n00:00:00,500 --> 00:00:02,000\nनमस्ते दुनिया\n\n"
+                        + "2\n00:00:03,000 --> 00:00:04,250\nsecond\n\n",
+                out.toString(StandardCharsets.UTF_8.name()));
+    }
+
+    @Test
+    public void writeCue_webVttStartsWithHeader() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SubtitleWriter writer = new SubtitleWriter(out, SubtitleWriter.Format.WEBVTT);
+        writer.writeCue(0.5, 2.0, "hello");
+        writer.close();
+
+        assertEquals("WEBVTT\n\n1\n00:00:00.500 --> 00:00:02.000\nhello\n\n",
+                out.toString(StandardCharsets.UTF_8.name()));
+    }
+}